@@ -0,0 +1,301 @@
+package core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Асинхронная запись заметок и автосохранение текста из окна.
+ * Все операции с диском выполняет один фоновый поток, который забирает
+ * задачи из ограниченной очереди пачками, поэтому вызовы из EDT
+ * возвращаются сразу и получают CompletableFuture с результатом.
+ * Автосохранение идёт мимо очереди: хранится только последний снимок
+ * текста, и поток записывает его после каждой пачки.
+ */
+public class AsyncNoteWriter implements Closeable {
+
+    // Режим сброса данных на диск
+    public enum Durability {
+        NONE,        // без fsync, данные остаются в кэше ОС
+        PER_BATCH,   // один fsync на всю пачку задач
+        PER_NOTE     // fsync после каждой записи
+    }
+
+    private static final String AUTOSAVE_FILE = "buffer.autosave";
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final int DEFAULT_MAX_BATCH = 16;
+    private static final long DEFAULT_OFFER_TIMEOUT_MS = 200;
+    private static final long AUTOSAVE_RETRY_MS = 1000;
+
+    private final FileManager fileManager;
+    private final Durability durability;
+    private final int maxBatch;
+    private final long offerTimeoutMs;
+    private final BlockingQueue<WriteTask> queue;
+    private final Path autosaveFile;
+    private final AtomicReference<String> pendingAutosave = new AtomicReference<>();
+    private final AtomicBoolean wakeQueued = new AtomicBoolean(false);
+    private final Thread writerThread;
+    private volatile boolean closed = false;
+    private volatile boolean autosaveFailing = false;
+
+    public AsyncNoteWriter(FileManager fileManager) {
+        this(fileManager, Durability.PER_BATCH, DEFAULT_QUEUE_CAPACITY,
+                DEFAULT_MAX_BATCH, DEFAULT_OFFER_TIMEOUT_MS);
+    }
+
+    public AsyncNoteWriter(FileManager fileManager, Durability durability,
+                           int queueCapacity, int maxBatch, long offerTimeoutMs) {
+        if (queueCapacity <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("Размер очереди и пачки должен быть больше нуля");
+        }
+        this.fileManager = fileManager;
+        this.durability = durability;
+        this.maxBatch = maxBatch;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.autosaveFile = fileManager.getNotesDir().resolve(AUTOSAVE_FILE);
+
+        writerThread = new Thread(this::writeLoop, "note-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // ===== ЗАМЕТКИ =====
+    public CompletableFuture<Path> saveNote(String text, String title) {
+        if (text == null || text.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Path filePath = fileManager.resolveNotePath(title);
+        LocalDateTime created = LocalDateTime.now();
+        return submit(new WriteTask(filePath) {
+            @Override
+            void write(boolean force) throws IOException {
+                fileManager.writeNote(filePath, text, created, force);
+            }
+        });
+    }
+
+    // ===== АВТОСОХРАНЕНИЕ =====
+    /**
+     * Запоминает текущее содержимое окна. Не ждёт и не отказывает даже при
+     * полной очереди: поток записи пишет только последний снимок, а при ошибке
+     * повторяет попытку. Пустой текст удаляет файл автосохранения.
+     */
+    public void autosave(String text) {
+        pendingAutosave.set(text == null ? "" : text);
+        // Достаточно одного сигнала в очереди; если она полна, поток и так
+        // занят и проверит снимок после текущей пачки
+        if (wakeQueued.compareAndSet(false, true) && !queue.offer(WriteTask.WAKE)) {
+            wakeQueued.set(false);
+        }
+    }
+
+    public void clearAutosave() {
+        autosave("");
+    }
+
+    // Не удалась последняя попытка автосохранения (снимок будет записан повторно)
+    public boolean isAutosaveFailing() {
+        return autosaveFailing;
+    }
+
+    // Текст, оставшийся после аварийного завершения (пусто, если сохранять нечего)
+    public Optional<String> recoverAutosave() {
+        try {
+            if (!Files.exists(autosaveFile)) return Optional.empty();
+            String text = Files.readString(autosaveFile, StandardCharsets.UTF_8);
+            return text.trim().isEmpty() ? Optional.empty() : Optional.of(text);
+        } catch (IOException e) {
+            System.err.println("Не удалось прочитать автосохранение: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    // Дожидается записи всех задач из очереди и останавливает поток
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(WriteTask.STOP);
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== ФОНОВЫЙ ПОТОК =====
+    private CompletableFuture<Path> submit(WriteTask task) {
+        if (closed) {
+            task.future.completeExceptionally(new IOException("Запись уже остановлена"));
+            return task.future;
+        }
+        try {
+            // Если очередь заполнена, вызывающий ждёт не дольше offerTimeoutMs
+            if (!queue.offer(task, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                task.future.completeExceptionally(
+                        new IOException("Очередь записи переполнена, повторите позже"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    private void writeLoop() {
+        List<WriteTask> batch = new ArrayList<>(maxBatch);
+        boolean running = true;
+
+        while (running) {
+            try {
+                // Ожидание с таймаутом: так неудавшееся автосохранение повторяется
+                WriteTask first = queue.poll(AUTOSAVE_RETRY_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (batch.remove(WriteTask.STOP)) {
+                running = false;
+                queue.drainTo(batch);
+                batch.remove(WriteTask.STOP);
+            }
+            if (batch.removeIf(task -> task == WriteTask.WAKE)) {
+                wakeQueued.set(false);
+            }
+
+            processBatch(batch);
+            batch.clear();
+            writePendingAutosave();
+        }
+    }
+
+    private void writePendingAutosave() {
+        String text = pendingAutosave.getAndSet(null);
+        if (text == null) return;
+
+        try {
+            if (text.trim().isEmpty()) {
+                Files.deleteIfExists(autosaveFile);
+            } else {
+                Path temp = autosaveFile.resolveSibling(AUTOSAVE_FILE + ".tmp");
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    if (durability != Durability.NONE) {
+                        channel.force(false);
+                    }
+                }
+                Files.move(temp, autosaveFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            autosaveFailing = false;
+        } catch (IOException | RuntimeException e) {
+            // Возвращаем снимок, если новее ещё не пришёл, — запишем при следующей попытке
+            pendingAutosave.compareAndSet(null, text);
+            if (!autosaveFailing) {
+                System.err.println("Ошибка автосохранения: " + e.getMessage());
+            }
+            autosaveFailing = true;
+        }
+    }
+
+    private void processBatch(List<WriteTask> batch) {
+        // Заметка, перезаписанная в этой же пачке, пишется только один раз
+        Map<Path, WriteTask> lastNoteWrite = new HashMap<>();
+        for (WriteTask task : batch) {
+            lastNoteWrite.put(task.path, task);
+        }
+
+        List<WriteTask> written = new ArrayList<>();
+        Set<Path> toSync = new LinkedHashSet<>();
+
+        for (WriteTask task : batch) {
+            WriteTask last = lastNoteWrite.get(task.path);
+            if (last != task) {
+                last.future.whenComplete((path, error) -> {
+                    if (error != null) task.future.completeExceptionally(error);
+                    else task.future.complete(path);
+                });
+                continue;
+            }
+            try {
+                task.write(durability == Durability.PER_NOTE);
+                toSync.add(task.path);
+                written.add(task);
+            } catch (IOException | RuntimeException e) {
+                // Ошибка одной задачи не должна останавливать поток записи
+                System.err.println("Ошибка записи " + task.path.getFileName() + ": " + e.getMessage());
+                task.future.completeExceptionally(e);
+            }
+        }
+
+        Map<Path, Exception> syncErrors = new HashMap<>();
+        if (durability == Durability.PER_BATCH) {
+            for (Path path : toSync) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                } catch (IOException | RuntimeException e) {
+                    syncErrors.put(path, e);
+                }
+            }
+        }
+
+        for (WriteTask task : written) {
+            Exception syncError = syncErrors.get(task.path);
+            if (syncError != null) {
+                task.future.completeExceptionally(syncError);
+            } else {
+                task.future.complete(task.path);
+            }
+        }
+    }
+
+    private abstract static class WriteTask {
+        static final WriteTask STOP = new WriteTask(null) {
+            @Override
+            void write(boolean force) {
+            }
+        };
+
+        // Сигнал потоку записи: появился новый снимок для автосохранения
+        static final WriteTask WAKE = new WriteTask(null) {
+            @Override
+            void write(boolean force) {
+            }
+        };
+
+        final Path path;
+        final CompletableFuture<Path> future = new CompletableFuture<>();
+
+        WriteTask(Path path) {
+            this.path = path;
+        }
+
+        abstract void write(boolean force) throws IOException;
+    }
+}
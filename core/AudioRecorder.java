@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class AudioRecorder {
-    private TargetDataLine microphone;
+    private AudioSource microphone;
     private AudioFileFormat.Type fileType = AudioFileFormat.Type.WAVE;
     private AudioFormat format;
     private File outputFile;
@@ -18,25 +18,27 @@ public class AudioRecorder {
     }
 
     public void startRecording(String outputDir) throws LineUnavailableException, IOException {
+        startRecording(outputDir, new MicrophoneAudioSource(format));
+    }
+
+    // Запись в WAV из любого источника (микрофон или имитация)
+    public void startRecording(String outputDir, AudioSource source)
+            throws LineUnavailableException, IOException {
         if (isRecording) return;
 
         String timestamp = LocalDateTime.now().format(
                 DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         outputFile = new File(outputDir, "recording_" + timestamp + ".wav");
 
-        DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
-        if (!AudioSystem.isLineSupported(info)) {
-            throw new LineUnavailableException("Микрофон не поддерживает нужный формат");
-        }
-
-        microphone = (TargetDataLine) AudioSystem.getLine(info);
-        microphone.open(format);
+        microphone = source;
+        microphone.open();
         microphone.start();
 
         isRecording = true;
 
         recordingThread = new Thread(() -> {
-            try (AudioInputStream audioStream = new AudioInputStream(microphone)) {
+            try (AudioInputStream audioStream = new AudioInputStream(microphone.asInputStream(),
+                    microphone.getFormat(), AudioSystem.NOT_SPECIFIED)) {
                 System.out.println("Запись начата: " + outputFile.getName());
                 AudioSystem.write(audioStream, fileType, outputFile);
                 System.out.println("Запись сохранена: " + outputFile.getAbsolutePath());
@@ -0,0 +1,59 @@
+package core;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Источник PCM-аудио для записи и распознавания.
+ * Реализации: микрофон (MicrophoneAudioSource) и имитация
+ * микрофона из WAV-файла (SimulatedAudioSource).
+ */
+public interface AudioSource extends AutoCloseable {
+
+    AudioFormat getFormat();
+
+    void open() throws LineUnavailableException, IOException;
+
+    void start();
+
+    // Блокирует до получения len байт; -1 — источник закончился
+    int read(byte[] buffer, int offset, int len) throws IOException;
+
+    void stop();
+
+    @Override
+    void close();
+
+    // Когда был записан последний байт из последнего read (System.nanoTime)
+    long getLastCaptureNanos();
+
+    // Поток поверх источника, например для AudioSystem.write
+    default InputStream asInputStream() {
+        return new InputStream() {
+            // Как и AudioInputStream, побайтовое чтение возможно только при кадре в 1 байт
+            @Override
+            public int read() throws IOException {
+                if (getFormat().getFrameSize() > 1) {
+                    throw new IOException("Нельзя прочитать один байт: размер кадра "
+                            + getFormat().getFrameSize() + " байт");
+                }
+                byte[] one = new byte[1];
+                int bytesRead;
+                while ((bytesRead = AudioSource.this.read(one, 0, 1)) == 0) {
+                    // источник пока пуст, ждём следующий байт
+                }
+                return bytesRead < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int frameSize = Math.max(1, getFormat().getFrameSize());
+                len -= len % frameSize;
+                if (len == 0) return 0;
+                return AudioSource.this.read(b, off, len);
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package core;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Детектор конца фразы по тишине в конце (16 бит, little-endian).
+ * Тишина считается по длительности аудио, а не по часам, поэтому
+ * детектор одинаково работает и с микрофоном, и с ускоренной имитацией.
+ */
+public class EndOfUtteranceDetector {
+    private final int silenceLevel;
+    private final long endSilenceBytes;
+    private final int frameSize;
+
+    private boolean inUtterance = false;
+    private long trailingSilenceBytes = 0;
+    private long speechEndNanos = 0;
+
+    public EndOfUtteranceDetector(LiveTuning tuning, AudioFormat format) {
+        this.silenceLevel = tuning.getSilenceLevel();
+        this.frameSize = Math.max(1, format.getFrameSize());
+        this.endSilenceBytes = (long) (format.getFrameRate() * tuning.getEndSilenceMs() / 1000.0)
+                * frameSize;
+    }
+
+    /**
+     * Обрабатывает очередной блок.
+     * @param captureNanos когда был записан последний байт блока
+     * @return true, если после речи набралось достаточно тишины и фразу пора завершить
+     */
+    public boolean accept(byte[] buffer, int length, long captureNanos) {
+        if (rms(buffer, length) >= silenceLevel) {
+            inUtterance = true;
+            trailingSilenceBytes = 0;
+            speechEndNanos = captureNanos;
+            return false;
+        }
+
+        trailingSilenceBytes += length;
+        if (inUtterance && endSilenceBytes > 0 && trailingSilenceBytes >= endSilenceBytes) {
+            inUtterance = false;
+            return true;
+        }
+        return false;
+    }
+
+    // Идёт ли фраза (включая короткие паузы внутри неё)
+    public boolean isSpeaking() {
+        return inUtterance;
+    }
+
+    // Фраза завершена (детектором или самим Vosk), начинаем следующую
+    public void utteranceFinished() {
+        inUtterance = false;
+        speechEndNanos = 0;
+    }
+
+    // Когда был записан последний блок с речью; 0 — речи ещё не было
+    public long getSpeechEndNanos() {
+        return speechEndNanos;
+    }
+
+    private double rms(byte[] buffer, int length) {
+        int samples = 0;
+        double sum = 0;
+        // Для многоканального звука берём первый канал
+        for (int i = 0; i + 1 < length; i += frameSize) {
+            int sample = (buffer[i + 1] << 8) | (buffer[i] & 0xFF);
+            sum += (double) sample * sample;
+            samples++;
+        }
+        return samples == 0 ? 0 : Math.sqrt(sum / samples);
+    }
+}
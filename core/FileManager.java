@@ -1,6 +1,9 @@
 package core;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -22,6 +25,11 @@ public class FileManager {
     public void saveNote(String text, String title) throws IOException {
         if (text == null || text.trim().isEmpty()) return;
 
+        writeNote(resolveNotePath(title), text, LocalDateTime.now(), false);
+    }
+
+    // Путь к файлу заметки по названию (или по текущему времени, если названия нет)
+    Path resolveNotePath(String title) {
         String timestamp = LocalDateTime.now().format(
                 DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
 
@@ -29,16 +37,32 @@ public class FileManager {
                 ? title + ".txt"
                 : "note_" + timestamp + ".txt";
 
-        Path filePath = notesDir.resolve(filename);
+        return notesDir.resolve(filename);
+    }
+
+    // Запись заметки с заголовком; при force=true данные сбрасываются на диск (fsync)
+    void writeNote(Path filePath, String text, LocalDateTime created, boolean force) throws IOException {
+        String content = "Дата: " + created.format(
+                DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss"))
+                + System.lineSeparator()
+                + "=".repeat(50)
+                + System.lineSeparator()
+                + text;
+
+        // Кодируем целиком до открытия файла: некорректный текст (в т.ч. в самом
+        // конце) даёт MalformedInputException, а не «?», обрезанный или пустой файл
+        ByteBuffer bytes = java.nio.charset.StandardCharsets.UTF_8.newEncoder()
+                .encode(CharBuffer.wrap(content));
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath,
-                java.nio.charset.StandardCharsets.UTF_8)) {
-            writer.write("Дата: " + LocalDateTime.now().format(
-                    DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")));
-            writer.newLine();
-            writer.write("=".repeat(50));
-            writer.newLine();
-            writer.write(text);
+            if (force) {
+                channel.force(true);
+            }
         }
     }
 
@@ -0,0 +1,45 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Накопитель задержек (в микросекундах) с расчётом перцентилей
+public class LatencyStats {
+    private final List<Long> samples = new ArrayList<>();
+
+    public synchronized void record(long micros) {
+        samples.add(micros);
+    }
+
+    public synchronized void addAll(LatencyStats other) {
+        samples.addAll(other.snapshot());
+    }
+
+    public synchronized int count() {
+        return samples.size();
+    }
+
+    public synchronized void clear() {
+        samples.clear();
+    }
+
+    // Перцентиль (0–100), микросекунды; 0, если замеров нет
+    public long percentile(double percentile) {
+        List<Long> sorted = snapshot();
+        if (sorted.isEmpty()) return 0;
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    public String summary() {
+        return String.format("n=%d p50=%.1f p90=%.1f p99=%.1f max=%.1f мс",
+                count(), percentile(50) / 1000.0, percentile(90) / 1000.0,
+                percentile(99) / 1000.0, percentile(100) / 1000.0);
+    }
+
+    private synchronized List<Long> snapshot() {
+        return new ArrayList<>(samples);
+    }
+}
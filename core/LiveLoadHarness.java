@@ -0,0 +1,162 @@
+package core;
+
+import org.vosk.Model;
+import javax.sound.sampled.AudioFormat;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Нагрузочный прогон живого распознавания без микрофона:
+ * N параллельных сессий, каждая читает WAV через SimulatedAudioSource.
+ * Задержка промежуточного результата — время от «записи» последнего
+ * прочитанного блока до вызова onPartialResult, итогового — от записи
+ * конца фразы до onTextRecognized.
+ *
+ * Запуск: LiveLoadHarness <модель> <файл.wav> [сессии] [скорость] [jitter, мс] [доля пропаданий]
+ * Настройки блоков и детектора конца фразы — системными свойствами voice.live.* (см. LiveTuning).
+ */
+public class LiveLoadHarness {
+    private static final AudioFormat FORMAT = new AudioFormat(16000.0f, 16, 1, true, false);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Использование: LiveLoadHarness <модель> <файл.wav> "
+                    + "[сессии=4] [скорость=1.0] [jitter_мс=0] [пропадания=0.0]");
+            return;
+        }
+
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        double speed = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+        long jitterMs = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        double dropoutRate = args.length > 5 ? Double.parseDouble(args[5]) : 0.0;
+
+        byte[] pcm = SimulatedAudioSource.loadPcm(new File(args[1]), FORMAT);
+
+        try (Model model = new Model(args[0])) {
+            Report report = run(model, pcm, sessions, speed, jitterMs, dropoutRate);
+            report.print();
+        }
+    }
+
+    public static Report run(Model model, byte[] pcm, int sessions, double speed,
+                             long jitterMs, double dropoutRate) throws IOException, InterruptedException {
+        List<Session> running = new ArrayList<>();
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < sessions; i++) {
+            SimulatedAudioSource source = new SimulatedAudioSource(FORMAT, pcm, speed,
+                    jitterMs, dropoutRate, false, i);
+            Session session = new Session(new VoiceRecognitionService(model), source);
+            session.service.startLiveRecognition(source);
+            running.add(session);
+        }
+
+        for (Session session : running) {
+            while (session.service.isRecording()) {
+                Thread.sleep(20);
+            }
+        }
+
+        Report report = new Report(sessions, (System.nanoTime() - startNanos) / 1_000_000L);
+        for (Session session : running) {
+            report.partialLatency.addAll(session.partialLatency);
+            report.finalLatency.addAll(session.service.getFinalLatencyStats());
+            report.unmeasuredFinals += session.service.getUnmeasuredFinalCount();
+            report.finalResults += session.finalResults;
+            report.stopResults += session.stopResults;
+            report.errors += session.errors;
+            report.overruns += session.source.getOverrunCount();
+            report.overrunBytes += session.source.getOverrunBytes();
+            report.dropouts += session.source.getDropoutCount();
+        }
+        return report;
+    }
+
+    // ===== ОДНА СЕССИЯ =====
+    private static class Session implements VoiceRecognitionService.RecognitionCallback {
+        final VoiceRecognitionService service;
+        final SimulatedAudioSource source;
+        final LatencyStats partialLatency = new LatencyStats();
+        volatile int finalResults = 0;
+        volatile int stopResults = 0;
+        volatile int errors = 0;
+
+        Session(VoiceRecognitionService service, SimulatedAudioSource source) {
+            this.service = service;
+            this.source = source;
+            service.setCallback(this);
+        }
+
+        @Override
+        public void onPartialResult(String partial) {
+            // Колбэк вызывается в потоке чтения, сразу после обработки блока
+            partialLatency.record((System.nanoTime() - source.getLastCaptureNanos()) / 1_000L);
+        }
+
+        @Override
+        public void onTextRecognized(String text) {
+            // Остаток при остановке не входит в замеры задержки, считаем его отдельно
+            if (text.startsWith(VoiceRecognitionService.END_OF_RECORDING_PREFIX)) {
+                stopResults++;
+            } else {
+                finalResults++;
+            }
+        }
+
+        @Override
+        public void onError(String error) {
+            errors++;
+            System.err.println("Ошибка сессии: " + error);
+        }
+
+        @Override
+        public void onStatus(String status) {
+        }
+    }
+
+    // ===== ОТЧЁТ =====
+    public static class Report {
+        final int sessions;
+        final long wallMillis;
+        final LatencyStats partialLatency = new LatencyStats();
+        final LatencyStats finalLatency = new LatencyStats();
+        int finalResults;
+        int stopResults;
+        int unmeasuredFinals;
+        int errors;
+        int overruns;
+        long overrunBytes;
+        int dropouts;
+
+        Report(int sessions, long wallMillis) {
+            this.sessions = sessions;
+            this.wallMillis = wallMillis;
+        }
+
+        public LatencyStats getPartialLatency() {
+            return partialLatency;
+        }
+
+        public LatencyStats getFinalLatency() {
+            return finalLatency;
+        }
+
+        public int getOverruns() {
+            return overruns;
+        }
+
+        public void print() {
+            System.out.println("=== НАГРУЗОЧНЫЙ ПРОГОН ===");
+            System.out.println("Сессий: " + sessions + ", время: " + wallMillis + " мс");
+            System.out.println("Промежуточных результатов: " + partialLatency.count()
+                    + ", итоговых: " + finalResults + ", при остановке: " + stopResults
+                    + ", ошибок: " + errors);
+            System.out.println("Задержка partial: " + partialLatency.summary());
+            System.out.println("Задержка итогового результата: " + finalLatency.summary()
+                    + ", без замера: " + unmeasuredFinals);
+            System.out.println("Переполнений буфера: " + overruns + " (" + overrunBytes
+                    + " байт потеряно), пропаданий звука: " + dropouts);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package core;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Настройки живого распознавания: размер блока чтения, детектор конца
+ * фразы и частота промежуточных результатов. Меньшие блоки дают текст
+ * раньше, но чаще вызывают распознаватель, то есть нагружают процессор.
+ *
+ * Значения по умолчанию можно переопределить системными свойствами
+ * voice.live.speechChunkMs, voice.live.idleChunkMs, voice.live.adaptive,
+ * voice.live.endSilenceMs, voice.live.silenceLevel, voice.live.partialIntervalMs.
+ */
+public class LiveTuning {
+    private static final int DEFAULT_SILENCE_LEVEL = 300;
+
+    private final int speechChunkMs;
+    private final int idleChunkMs;
+    private final boolean adaptive;
+    private final int endSilenceMs;
+    private final int silenceLevel;
+    private final int partialIntervalMs;
+
+    /**
+     * @param speechChunkMs     размер блока во время речи
+     * @param idleChunkMs       размер блока в тишине (и всегда, если adaptive=false)
+     * @param endSilenceMs      тишина после речи, после которой фраза завершается; 0 — выкл.
+     * @param silenceLevel      порог RMS (16 бит, больше нуля), ниже которого звук считается тишиной
+     * @param partialIntervalMs не чаще какого интервала запрашивать промежуточный результат
+     */
+    public LiveTuning(int speechChunkMs, int idleChunkMs, boolean adaptive,
+                      int endSilenceMs, int silenceLevel, int partialIntervalMs) {
+        if (speechChunkMs <= 0 || idleChunkMs <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть больше нуля");
+        }
+        if (silenceLevel <= 0) {
+            // Иначе любой блок считается речью и замер задержки теряет смысл
+            throw new IllegalArgumentException("Порог тишины должен быть больше нуля");
+        }
+        this.speechChunkMs = speechChunkMs;
+        this.idleChunkMs = idleChunkMs;
+        this.adaptive = adaptive;
+        this.endSilenceMs = endSilenceMs;
+        this.silenceLevel = silenceLevel;
+        this.partialIntervalMs = partialIntervalMs;
+    }
+
+    // Прежнее поведение: блоки по 4096 байт (128 мс), фразу завершает только Vosk.
+    // Порог речи тот же, что и в lowLatency(), чтобы задержки можно было сравнивать
+    public static LiveTuning classic() {
+        return new LiveTuning(128, 128, false, 0, DEFAULT_SILENCE_LEVEL, 0);
+    }
+
+    // Блоки 30 мс во время речи, 128 мс в тишине, конец фразы после 500 мс тишины
+    public static LiveTuning lowLatency() {
+        return new LiveTuning(30, 128, true, 500, DEFAULT_SILENCE_LEVEL, 100);
+    }
+
+    public static LiveTuning fromSystemProperties() {
+        LiveTuning base = lowLatency();
+        return new LiveTuning(
+                Integer.getInteger("voice.live.speechChunkMs", base.speechChunkMs),
+                Integer.getInteger("voice.live.idleChunkMs", base.idleChunkMs),
+                Boolean.parseBoolean(System.getProperty("voice.live.adaptive",
+                        String.valueOf(base.adaptive))),
+                Integer.getInteger("voice.live.endSilenceMs", base.endSilenceMs),
+                Integer.getInteger("voice.live.silenceLevel", base.silenceLevel),
+                Integer.getInteger("voice.live.partialIntervalMs", base.partialIntervalMs));
+    }
+
+    // Сколько байт читать следующим блоком
+    public int chunkBytes(AudioFormat format, boolean speaking) {
+        int ms = (adaptive && speaking) ? speechChunkMs : idleChunkMs;
+        return msToBytes(format, ms);
+    }
+
+    public int maxChunkBytes(AudioFormat format) {
+        return msToBytes(format, Math.max(speechChunkMs, idleChunkMs));
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public int getEndSilenceMs() {
+        return endSilenceMs;
+    }
+
+    public int getSilenceLevel() {
+        return silenceLevel;
+    }
+
+    public int getPartialIntervalMs() {
+        return partialIntervalMs;
+    }
+
+    @Override
+    public String toString() {
+        return "блок " + (adaptive ? speechChunkMs + "/" : "") + idleChunkMs + " мс, "
+                + "конец фразы " + (endSilenceMs > 0 ? endSilenceMs + " мс тишины" : "по Vosk");
+    }
+
+    private static int msToBytes(AudioFormat format, int ms) {
+        int frameSize = Math.max(1, format.getFrameSize());
+        int frames = Math.max(1, Math.round(format.getFrameRate() * ms / 1000f));
+        return frames * frameSize;
+    }
+}
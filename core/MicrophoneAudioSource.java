@@ -0,0 +1,68 @@
+package core;
+
+import javax.sound.sampled.*;
+
+// Настоящий микрофон через TargetDataLine
+public class MicrophoneAudioSource implements AudioSource {
+    private final AudioFormat format;
+    private TargetDataLine line;
+    private volatile boolean stopped = false;
+    private long lastCaptureNanos;
+
+    public MicrophoneAudioSource(AudioFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public static boolean isSupported(AudioFormat format) {
+        return AudioSystem.isLineSupported(new DataLine.Info(TargetDataLine.class, format));
+    }
+
+    @Override
+    public void open() throws LineUnavailableException {
+        if (!isSupported(format)) {
+            throw new LineUnavailableException("Микрофон не поддерживает нужный формат");
+        }
+
+        DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+        line = (TargetDataLine) AudioSystem.getLine(info);
+        line.open(format);
+    }
+
+    @Override
+    public void start() {
+        stopped = false;
+        line.start();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int len) {
+        int bytesRead = line.read(buffer, offset, len);
+        // Всё, что ещё лежит в буфере линии, записано позже прочитанного блока
+        long queuedNanos = (long) (line.available() / (double) format.getFrameSize()
+                / format.getFrameRate() * 1_000_000_000L);
+        lastCaptureNanos = System.nanoTime() - queuedNanos;
+        // После stop() линия отдаёт остаток буфера, затем 0 — это конец записи
+        return (stopped && bytesRead == 0) ? -1 : bytesRead;
+    }
+
+    @Override
+    public long getLastCaptureNanos() {
+        return lastCaptureNanos;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        if (line != null) line.stop();
+    }
+
+    @Override
+    public void close() {
+        if (line != null) line.close();
+    }
+}
@@ -0,0 +1,207 @@
+package core;
+
+import javax.sound.sampled.*;
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Имитация микрофона: отдаёт PCM-данные из WAV-файла (или готового буфера)
+ * в темпе реального времени либо ускоренно. Умеет добавлять случайную
+ * задержку чтения (jitter) и пропадания звука (dropout), а также, как и
+ * настоящая линия, теряет данные при переполнении буфера, если читатель
+ * не успевает (overrun).
+ */
+public class SimulatedAudioSource implements AudioSource {
+    private final AudioFormat format;
+    private final byte[] pcm;
+    private final double speed;
+    private final long jitterNanos;
+    private final double dropoutRate;
+    private final int lineBufferBytes;
+    private final boolean loop;
+    private final Random random;
+
+    private long startNanos;
+    private long capturedBytes;     // сколько байт «записано» с момента start()
+    private long lastCaptureNanos;
+    private volatile boolean running = false;
+    private volatile int overrunCount = 0;
+    private volatile long overrunBytes = 0;
+    private volatile int dropoutCount = 0;
+
+    /**
+     * @param speed       1.0 — реальное время, 2.0 — вдвое быстрее, 0 — без задержек
+     * @param jitterMs    максимальная случайная задержка одного чтения
+     * @param dropoutRate вероятность того, что прочитанный блок окажется тишиной
+     */
+    public SimulatedAudioSource(AudioFormat format, byte[] pcm, double speed,
+                                long jitterMs, double dropoutRate, boolean loop, long seed) {
+        if (speed < 0) throw new IllegalArgumentException("Скорость не может быть отрицательной");
+        this.format = format;
+        this.pcm = pcm;
+        this.speed = speed;
+        this.jitterNanos = jitterMs * 1_000_000L;
+        this.dropoutRate = dropoutRate;
+        this.loop = loop;
+        this.random = new Random(seed);
+
+        // Как у TargetDataLine по умолчанию: около половины секунды звука
+        int frameSize = Math.max(1, format.getFrameSize());
+        int halfSecond = (int) (format.getFrameRate() / 2) * frameSize;
+        this.lineBufferBytes = Math.max(frameSize, halfSecond);
+    }
+
+    public SimulatedAudioSource(File wavFile, AudioFormat format, double speed,
+                                long jitterMs, double dropoutRate) throws IOException {
+        this(format, loadPcm(wavFile, format), speed, jitterMs, dropoutRate, false,
+                System.nanoTime());
+    }
+
+    // Читает WAV-файл целиком и приводит его к нужному формату
+    public static byte[] loadPcm(File wavFile, AudioFormat format) throws IOException {
+        try (AudioInputStream original = AudioSystem.getAudioInputStream(wavFile)) {
+            AudioInputStream stream = original;
+            if (!original.getFormat().matches(format)) {
+                if (!AudioSystem.isConversionSupported(format, original.getFormat())) {
+                    throw new IOException("Не удалось сконвертировать " + wavFile.getName()
+                            + " в " + format);
+                }
+                stream = AudioSystem.getAudioInputStream(format, original);
+            }
+            return stream.readAllBytes();
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Формат файла не поддерживается. Используйте WAV файл", e);
+        }
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public void open() {
+        capturedBytes = 0;
+    }
+
+    @Override
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int len) throws IOException {
+        if (!running || pcm.length == 0 || (!loop && capturedBytes >= pcm.length)) return -1;
+
+        int frameSize = Math.max(1, format.getFrameSize());
+        len -= len % frameSize;
+        if (!loop) {
+            len = (int) Math.min(len, pcm.length - capturedBytes);
+        }
+        if (len <= 0) return 0;
+
+        long wanted = capturedBytes + len;
+        if (speed > 0) {
+            // Данные, которые «микрофон» записал, пока читатель был занят
+            long available = bytesAt(System.nanoTime()) - capturedBytes;
+            if (available > lineBufferBytes) {
+                long lost = available - lineBufferBytes;
+                lost -= lost % frameSize;
+                capturedBytes += lost;
+                overrunBytes += lost;
+                overrunCount++;
+                if (!loop) {
+                    if (capturedBytes >= pcm.length) return -1;
+                    len = (int) Math.min(len, pcm.length - capturedBytes);
+                }
+                wanted = capturedBytes + len;
+            }
+
+            long due = startNanos + nanosFor(wanted);
+            if (jitterNanos > 0) {
+                due += (long) (random.nextDouble() * jitterNanos);
+            }
+            sleepUntil(due);
+        }
+
+        if (dropoutRate > 0 && random.nextDouble() < dropoutRate) {
+            java.util.Arrays.fill(buffer, offset, offset + len, (byte) 0);
+            dropoutCount++;
+        } else {
+            copyPcm(capturedBytes, buffer, offset, len);
+        }
+
+        capturedBytes = wanted;
+        lastCaptureNanos = speed > 0 ? startNanos + nanosFor(wanted) : System.nanoTime();
+        return len;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+    }
+
+    // Момент, когда последний отданный байт был бы записан настоящим микрофоном
+    @Override
+    public long getLastCaptureNanos() {
+        return lastCaptureNanos;
+    }
+
+    public int getOverrunCount() {
+        return overrunCount;
+    }
+
+    public long getOverrunBytes() {
+        return overrunBytes;
+    }
+
+    public int getDropoutCount() {
+        return dropoutCount;
+    }
+
+    public double getDurationSeconds() {
+        return pcm.length / bytesPerSecond();
+    }
+
+    // ===== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ =====
+    private double bytesPerSecond() {
+        return format.getFrameRate() * Math.max(1, format.getFrameSize());
+    }
+
+    private long nanosFor(long bytes) {
+        return (long) (bytes / bytesPerSecond() / speed * 1_000_000_000L);
+    }
+
+    private long bytesAt(long nanos) {
+        return (long) ((nanos - startNanos) / 1_000_000_000.0 * speed * bytesPerSecond());
+    }
+
+    private void copyPcm(long position, byte[] buffer, int offset, int len) {
+        while (len > 0) {
+            int from = (int) (position % pcm.length);
+            int chunk = Math.min(len, pcm.length - from);
+            System.arraycopy(pcm, from, buffer, offset, chunk);
+            position += chunk;
+            offset += chunk;
+            len -= chunk;
+        }
+    }
+
+    private void sleepUntil(long dueNanos) throws IOException {
+        long wait;
+        while (running && (wait = dueNanos - System.nanoTime()) > 0) {
+            try {
+                Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Чтение прервано");
+            }
+        }
+    }
+}
@@ -4,15 +4,27 @@ import org.vosk.Model;
 import org.vosk.Recognizer;
 import javax.sound.sampled.*;
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 import com.google.gson.*;
 
 public class VoiceRecognitionService {
     private Model model;
     private Recognizer recognizer;
-    private boolean isRunning = false;
-    private TargetDataLine microphone;
+    private volatile boolean isRunning = false;
+    private AudioSource audioSource;
     private RecognitionCallback callback;
 
+    // Префикс результата, который дописывается при остановке записи
+    public static final String END_OF_RECORDING_PREFIX = "[Конец записи] ";
+    private LiveTuning liveTuning = LiveTuning.fromSystemProperties();
+    private final LatencyStats finalLatency = new LatencyStats();
+    private volatile int unmeasuredFinals = 0;
+
+    // Сколько блоков может ждать обработки в очереди одного канала
+    private static final int CHANNEL_QUEUE_BLOCKS = 32;
+    private static final byte[] END_OF_CHANNEL = new byte[0];
+
     public interface RecognitionCallback {
         void onTextRecognized(String text);
         void onError(String error);
@@ -26,10 +38,34 @@ public class VoiceRecognitionService {
         this.recognizer = new Recognizer(model, 16000.0f);
     }
 
+    // Сервис поверх уже загруженной модели (модель общая для нескольких сервисов)
+    public VoiceRecognitionService(Model model) {
+        this.model = model;
+    }
+
     public void setCallback(RecognitionCallback callback) {
         this.callback = callback;
     }
 
+    // Применяется со следующего запуска живого распознавания
+    public void setLiveTuning(LiveTuning liveTuning) {
+        this.liveTuning = liveTuning;
+    }
+
+    public LiveTuning getLiveTuning() {
+        return liveTuning;
+    }
+
+    // Задержка от записи конца фразы до итогового результата (за последнюю запись)
+    public LatencyStats getFinalLatencyStats() {
+        return finalLatency;
+    }
+
+    // Итоговые результаты без замера: детектор не слышал речи с прошлого результата
+    public int getUnmeasuredFinalCount() {
+        return unmeasuredFinals;
+    }
+
     // ===== РАСПОЗНАВАНИЕ ИЗ ФАЙЛА =====
     public String recognizeAudioFile(File audioFile) throws IOException {
         AudioInputStream originalStream = null;
@@ -88,52 +124,169 @@ public class VoiceRecognitionService {
         }
     }
 
+    // ===== РАСПОЗНАВАНИЕ МНОГОКАНАЛЬНОГО ФАЙЛА =====
+    // separateChannels=true: каждый канал — отдельный спикер
+    public String recognizeAudioFile(File audioFile, boolean separateChannels) throws IOException {
+        return separateChannels ? recognizeChannels(audioFile) : recognizeAudioFile(audioFile);
+    }
+
+    /**
+     * Файл читается один раз, каналы разделяются на лету и распознаются
+     * параллельно, каждый своим Recognizer поверх общей модели.
+     * Результат — общая расшифровка по времени с подписями спикеров.
+     */
+    public String recognizeChannels(File audioFile) throws IOException {
+        AudioInputStream originalStream;
+        try {
+            originalStream = AudioSystem.getAudioInputStream(audioFile);
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Формат файла не поддерживается. Используйте WAV файл", e);
+        }
+
+        AudioFormat originalFormat = originalStream.getFormat();
+        int channels = originalFormat.getChannels();
+        if (channels <= 1) {
+            originalStream.close();
+            return recognizeAudioFile(audioFile);
+        }
+
+        System.out.println("=== ОБРАБОТКА ФАЙЛА ПО КАНАЛАМ ===");
+        System.out.println("Имя: " + audioFile.getName() + ", каналов: " + channels);
+
+        // Частоту не меняем — Recognizer создаётся сразу на частоту файла
+        float sampleRate = originalFormat.getSampleRate();
+        AudioFormat pcmFormat = new AudioFormat(sampleRate, 16, channels, true, false);
+
+        ExecutorService pool = Executors.newFixedThreadPool(channels);
+        try (AudioInputStream pcmStream = toPcm(originalStream, pcmFormat)) {
+            List<BlockingQueue<byte[]>> queues = new ArrayList<>();
+            List<Future<List<Segment>>> results = new ArrayList<>();
+
+            for (int channel = 0; channel < channels; channel++) {
+                BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(CHANNEL_QUEUE_BLOCKS);
+                int speaker = channel;
+                queues.add(queue);
+                results.add(pool.submit(() -> decodeChannel(speaker, queue, sampleRate)));
+            }
+
+            int frameSize = pcmFormat.getFrameSize();
+            byte[] buffer = new byte[2048 * frameSize];
+            int bytesRead;
+
+            System.out.println("Распознавание " + channels + " каналов...");
+            while ((bytesRead = pcmStream.read(buffer)) >= 0) {
+                int frames = bytesRead / frameSize;
+                if (frames == 0) continue;
+
+                for (int channel = 0; channel < channels; channel++) {
+                    byte[] block = new byte[frames * 2];
+                    int src = channel * 2;
+                    for (int i = 0; i < frames; i++, src += frameSize) {
+                        block[2 * i] = buffer[src];
+                        block[2 * i + 1] = buffer[src + 1];
+                    }
+                    putBlock(queues.get(channel), block, results.get(channel));
+                }
+            }
+
+            for (int channel = 0; channel < channels; channel++) {
+                putBlock(queues.get(channel), END_OF_CHANNEL, results.get(channel));
+            }
+
+            List<Segment> segments = new ArrayList<>();
+            for (Future<List<Segment>> result : results) {
+                segments.addAll(result.get());
+            }
+            segments.sort(Comparator.comparingDouble((Segment seg) -> seg.start)
+                    .thenComparingInt(seg -> seg.channel));
+
+            String text = formatTranscript(segments);
+            System.out.println("Извлечённый текст:\n" + text);
+            return text;
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Ошибка: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Распознавание прервано", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     // ===== ЗАПИСЬ С МИКРОФОНА В РЕАЛЬНОМ ВРЕМЕНИ =====
     public void startMicrophoneRecording() {
+        startLiveRecognition(new MicrophoneAudioSource(
+                new AudioFormat(16000.0f, 16, 1, true, false)));
+    }
+
+    // Распознавание в реальном времени из любого источника (микрофон или имитация)
+    public void startLiveRecognition(AudioSource source) {
         if (isRunning) {
             if (callback != null) callback.onError("Запись уже запущена");
             return;
         }
 
         isRunning = true;
+        audioSource = source;
+        finalLatency.clear();
+        unmeasuredFinals = 0;
 
         new Thread(() -> {
+            Recognizer liveRecognizer = null;
             try {
-                AudioFormat format = new AudioFormat(16000.0f, 16, 1, true, false);
-                DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
-
-                // Проверяем доступность микрофона
-                if (!AudioSystem.isLineSupported(info)) {
+                try {
+                    source.open();
+                } catch (LineUnavailableException e) {
+                    // Проверяем доступность микрофона
                     if (callback != null) {
-                        callback.onError("Микрофон не поддерживает нужный формат. Используйте другой микрофон или файлы.");
+                        boolean unsupported = source instanceof MicrophoneAudioSource
+                                && !MicrophoneAudioSource.isSupported(source.getFormat());
+                        callback.onError(unsupported
+                                ? "Микрофон не поддерживает нужный формат. Используйте другой микрофон или файлы."
+                                : "Микрофон недоступен: " + e.getMessage());
                     }
                     isRunning = false;
                     return;
                 }
 
-                microphone = (TargetDataLine) AudioSystem.getLine(info);
-                microphone.open(format);
-                microphone.start();
+                source.start();
 
                 if (callback != null) {
                     callback.onStatus("Запись началась. Говорите в микрофон...");
                 }
 
-                recognizer = new Recognizer(model, 16000.0f);
-                byte[] buffer = new byte[4096];
+                liveRecognizer = new Recognizer(model, 16000.0f);
+                LiveTuning tuning = liveTuning;
+                AudioFormat format = source.getFormat();
+                EndOfUtteranceDetector detector = new EndOfUtteranceDetector(tuning, format);
+                byte[] buffer = new byte[tuning.maxChunkBytes(format)];
+                long partialIntervalNanos = tuning.getPartialIntervalMs() * 1_000_000L;
+                long lastPartialNanos = 0;
+                System.out.println("Живое распознавание: " + tuning);
 
                 while (isRunning) {
-                    int bytesRead = microphone.read(buffer, 0, buffer.length);
+                    int chunk = tuning.chunkBytes(format, detector.isSpeaking());
+                    int bytesRead = source.read(buffer, 0, chunk);
+
+                    if (bytesRead < 0) {
+                        break;
+                    }
 
                     if (bytesRead > 0) {
-                        if (recognizer.acceptWaveForm(buffer, bytesRead)) {
-                            String result = recognizer.getResult();
-                            String text = extractText(result);
-                            if (!text.isEmpty() && callback != null) {
-                                callback.onTextRecognized(text);
-                            }
-                        } else {
-                            String partial = recognizer.getPartialResult();
+                        long captureNanos = source.getLastCaptureNanos();
+                        boolean endOfUtterance = detector.accept(buffer, bytesRead, captureNanos);
+
+                        if (liveRecognizer.acceptWaveForm(buffer, bytesRead)) {
+                            emitFinalResult(liveRecognizer.getResult(), detector);
+                        } else if (endOfUtterance) {
+                            // Vosk ещё ждёт тишины — завершаем фразу сами,
+                            // следующий acceptWaveForm начнёт новую
+                            emitFinalResult(liveRecognizer.getFinalResult(), detector);
+                        } else if (System.nanoTime() - lastPartialNanos >= partialIntervalNanos) {
+                            lastPartialNanos = System.nanoTime();
+                            String partial = liveRecognizer.getPartialResult();
                             String partialText = extractText(partial);
                             if (!partialText.isEmpty() && callback != null) {
                                 callback.onPartialResult(partialText);
@@ -142,13 +295,17 @@ public class VoiceRecognitionService {
                     }
                 }
 
-                microphone.stop();
-                microphone.close();
+                if (finalLatency.count() > 0) {
+                    System.out.println("Задержка итогового результата: " + finalLatency.summary()
+                            + (unmeasuredFinals > 0 ? ", без замера: " + unmeasuredFinals : ""));
+                }
+
+                source.stop();
 
-                String finalResult = recognizer.getFinalResult();
+                String finalResult = liveRecognizer.getFinalResult();
                 String finalText = extractText(finalResult);
                 if (!finalText.isEmpty() && callback != null) {
-                    callback.onTextRecognized("[Конец записи] " + finalText);
+                    callback.onTextRecognized(END_OF_RECORDING_PREFIX + finalText);
                 }
 
             } catch (Exception e) {
@@ -157,6 +314,10 @@ public class VoiceRecognitionService {
                 }
                 e.printStackTrace();
             } finally {
+                if (liveRecognizer != null) {
+                    liveRecognizer.close();
+                }
+                source.close();
                 isRunning = false;
             }
         }).start();
@@ -164,12 +325,35 @@ public class VoiceRecognitionService {
 
     public void stopMicrophoneRecording() {
         isRunning = false;
+        // Прерываем ожидающее чтение, чтобы поток распознавания завершился сразу
+        if (audioSource != null) {
+            audioSource.stop();
+        }
     }
 
     public boolean isRecording() {
         return isRunning;
     }
 
+    private void emitFinalResult(String result, EndOfUtteranceDetector detector) {
+        String text = extractText(result);
+        long speechEnd = detector.getSpeechEndNanos();
+        detector.utteranceFinished();
+        if (text.isEmpty()) return;
+
+        // Задержка считается от последнего блока с речью; если конец речи
+        // неизвестен (например, Vosk дослал результат после принудительного
+        // завершения), замер не пишем, чтобы не занижать его временем декодирования
+        if (speechEnd > 0) {
+            finalLatency.record((System.nanoTime() - speechEnd) / 1_000L);
+        } else {
+            unmeasuredFinals++;
+        }
+        if (callback != null) {
+            callback.onTextRecognized(text);
+        }
+    }
+
     // ===== ДЕМО-РЕЖИМ =====
     public String recognizeAudioFileDemo(File audioFile) {
         System.out.println("ДЕМО-РЕЖИМ: " + audioFile.getName());
@@ -194,6 +378,84 @@ public class VoiceRecognitionService {
     }
 
     // ===== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ =====
+    // Фрагмент речи одного канала с временем начала в секундах
+    private static class Segment {
+        final int channel;
+        final double start;
+        final String text;
+
+        Segment(int channel, double start, String text) {
+            this.channel = channel;
+            this.start = start;
+            this.text = text;
+        }
+    }
+
+    private AudioInputStream toPcm(AudioInputStream stream, AudioFormat pcmFormat) throws IOException {
+        if (stream.getFormat().matches(pcmFormat)) return stream;
+        if (!AudioSystem.isConversionSupported(pcmFormat, stream.getFormat())) {
+            stream.close();
+            throw new IOException("Формат файла не поддерживается. Используйте WAV файл (PCM)");
+        }
+        return AudioSystem.getAudioInputStream(pcmFormat, stream);
+    }
+
+    private List<Segment> decodeChannel(int channel, BlockingQueue<byte[]> queue,
+                                        float sampleRate) throws Exception {
+        List<Segment> segments = new ArrayList<>();
+
+        try (Recognizer channelRecognizer = new Recognizer(model, sampleRate)) {
+            channelRecognizer.setWords(true);
+
+            byte[] block;
+            while ((block = queue.take()) != END_OF_CHANNEL) {
+                if (channelRecognizer.acceptWaveForm(block, block.length)) {
+                    addSegment(segments, channel, channelRecognizer.getResult());
+                }
+            }
+            addSegment(segments, channel, channelRecognizer.getFinalResult());
+        }
+
+        return segments;
+    }
+
+    // Если распознавание канала упало, не ждём места в его очереди вечно
+    private void putBlock(BlockingQueue<byte[]> queue, byte[] block,
+                          Future<List<Segment>> result) throws InterruptedException, ExecutionException {
+        while (!queue.offer(block, 100, TimeUnit.MILLISECONDS)) {
+            if (result.isDone()) {
+                result.get();
+                return;
+            }
+        }
+    }
+
+    private void addSegment(List<Segment> segments, int channel, String jsonResult) {
+        try {
+            JsonObject result = JsonParser.parseString(jsonResult).getAsJsonObject();
+            JsonArray words = result.getAsJsonArray("result");
+            String text = fixVoskEncoding(result.get("text").getAsString());
+            if (words == null || words.size() == 0 || text.isEmpty()) return;
+
+            double start = words.get(0).getAsJsonObject().get("start").getAsDouble();
+            segments.add(new Segment(channel, start, text));
+
+        } catch (Exception e) {
+            System.out.println("Ошибка парсинга JSON: " + e.getMessage());
+        }
+    }
+
+    private String formatTranscript(List<Segment> segments) {
+        StringBuilder transcript = new StringBuilder();
+        for (Segment segment : segments) {
+            if (transcript.length() > 0) transcript.append("\n");
+            int seconds = (int) segment.start;
+            transcript.append(String.format("[%02d:%02d] Спикер %d: %s",
+                    seconds / 60, seconds % 60, segment.channel + 1, segment.text));
+        }
+        return transcript.toString();
+    }
+
     private String extractText(String jsonResult) {
         try {
             JsonElement element = JsonParser.parseString(jsonResult);
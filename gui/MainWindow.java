@@ -10,13 +10,16 @@ public class MainWindow extends JFrame {
     private VoiceRecognitionService recognitionService;
     private AudioRecorder audioRecorder;
     private FileManager fileManager;
+    private AsyncNoteWriter noteWriter;
 
     private JTextArea textArea;
     private JButton recordButton;
     private JButton stopRecordButton;
     private JButton recognizeFileButton;
     private JButton saveButton;
+    private JCheckBox channelsCheckBox;
     private JLabel statusLabel;
+    private Timer autosaveTimer;
 
     public MainWindow() {
         setUTF8Encoding();
@@ -52,10 +55,15 @@ public class MainWindow extends JFrame {
         stopRecordButton = new JButton("⏹ Остановить запись");
         recognizeFileButton = new JButton("📁 Загрузить аудиофайл");
         saveButton = new JButton("💾 Сохранить текст");
+        channelsCheckBox = new JCheckBox("Каждый канал — отдельный спикер");
         statusLabel = new JLabel("Готов к работе");
 
         stopRecordButton.setEnabled(false);
         saveButton.setEnabled(false);
+
+        // Правки с клавиатуры сохраняются через секунду после последнего изменения
+        autosaveTimer = new Timer(1000, e -> autosaveNow());
+        autosaveTimer.setRepeats(false);
     }
 
     private void setupLayout() {
@@ -70,6 +78,7 @@ public class MainWindow extends JFrame {
         JPanel filePanel = new JPanel(new FlowLayout());
         filePanel.add(recognizeFileButton);
         filePanel.add(saveButton);
+        filePanel.add(channelsCheckBox);
 
         // Общая панель управления
         JPanel controlPanel = new JPanel(new GridLayout(2, 1));
@@ -91,11 +100,41 @@ public class MainWindow extends JFrame {
         stopRecordButton.addActionListener(e -> stopRecording());
         recognizeFileButton.addActionListener(e -> recognizeFromFile());
         saveButton.addActionListener(e -> saveNote());
+
+        // Любое изменение текста (распознанный текст, файл, ручные правки) попадает в автосохранение
+        textArea.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                autosaveTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                autosaveTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+            }
+        });
+
+        // Перед выходом дописываем всё, что осталось в очереди записи
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                if (noteWriter != null) {
+                    autosaveNow();
+                    noteWriter.close();
+                }
+            }
+        });
     }
 
     private void initializeServices() {
         try {
             fileManager = new FileManager(".");
+            noteWriter = new AsyncNoteWriter(fileManager);
+            restoreAutosavedText();
             recognitionService = new VoiceRecognitionService("model");
             audioRecorder = new AudioRecorder();
 
@@ -105,8 +144,7 @@ public class MainWindow extends JFrame {
                 public void onTextRecognized(String text) {
                     SwingUtilities.invokeLater(() -> {
                         if (!text.trim().isEmpty()) {
-                            textArea.append(text + "\n");
-                            saveButton.setEnabled(true);
+                            appendText(text + "\n");
                         }
                     });
                 }
@@ -144,6 +182,38 @@ public class MainWindow extends JFrame {
         }
     }
 
+    private void restoreAutosavedText() {
+        noteWriter.recoverAutosave().ifPresent(saved -> {
+            int choice = JOptionPane.showConfirmDialog(this,
+                    "Найден несохранённый текст с прошлого запуска.\nВосстановить?",
+                    "Восстановление", JOptionPane.YES_NO_OPTION);
+
+            if (choice == JOptionPane.YES_OPTION) {
+                textArea.setText(saved);
+                saveButton.setEnabled(true);
+            } else {
+                noteWriter.clearAutosave();
+            }
+        });
+    }
+
+    // Весь текст, который программа добавляет в окно, идёт через этот метод
+    private void appendText(String text) {
+        textArea.append(text);
+        saveButton.setEnabled(true);
+        autosaveNow();
+    }
+
+    private void autosaveNow() {
+        if (noteWriter == null) return;
+
+        autosaveTimer.stop();
+        noteWriter.autosave(textArea.getText());
+        if (noteWriter.isAutosaveFailing()) {
+            statusLabel.setText("Автосохранение не удалось, повторяем попытку...");
+        }
+    }
+
     // ===== ЗАПИСЬ С МИКРОФОНА =====
     private void startRecording() {
         try {
@@ -207,7 +277,8 @@ public class MainWindow extends JFrame {
                 statusLabel.setText("Обработка файла...");
 
                 // РЕАЛЬНОЕ РАСПОЗНАВАНИЕ
-                String text = recognitionService.recognizeAudioFile(audioFile);
+                String text = recognitionService.recognizeAudioFile(audioFile,
+                        channelsCheckBox.isSelected());
 
                 if (text == null || text.trim().isEmpty()) {
                     throw new IOException("Пустой результат");
@@ -217,10 +288,8 @@ public class MainWindow extends JFrame {
                 text = fixTextEncoding(text);
 
                 // Вывод в GUI
-                textArea.append("[Файл: " + audioFile.getName() + "]\n");
-                textArea.append(text + "\n\n");
+                appendText("[Файл: " + audioFile.getName() + "]\n" + text + "\n\n");
                 statusLabel.setText("Файл распознан: " + audioFile.getName());
-                saveButton.setEnabled(true);
 
                 // Показ результата
                 showResultDialog("Результат распознавания файла",
@@ -233,10 +302,8 @@ public class MainWindow extends JFrame {
 
                 String text = recognitionService.recognizeAudioFileDemo(audioFile);
 
-                textArea.append("[ДЕМО: " + audioFile.getName() + "]\n");
-                textArea.append(text + "\n\n");
+                appendText("[ДЕМО: " + audioFile.getName() + "]\n" + text + "\n\n");
                 statusLabel.setText("Демо-режим: файл обработан");
-                saveButton.setEnabled(true);
 
                 JOptionPane.showMessageDialog(this,
                         "Реальное распознавание не удалось:\n" + ex.getMessage() +
@@ -298,24 +365,37 @@ public class MainWindow extends JFrame {
             title = "Заметка_" + System.currentTimeMillis();
         }
 
-        try {
-            fileManager.saveNote(text, title);
-            statusLabel.setText("Заметка сохранена: " + title + ".txt");
-
-            int choice = JOptionPane.showConfirmDialog(this,
-                    "Заметка сохранена в UTF-8!\nОчистить поле?",
-                    "Сохранено", JOptionPane.YES_NO_OPTION);
-
-            if (choice == JOptionPane.YES_OPTION) {
-                textArea.setText("");
-                saveButton.setEnabled(false);
-            }
+        String savedTitle = title;
+        statusLabel.setText("Сохранение заметки...");
 
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Ошибка сохранения: " + ex.getMessage(),
-                    "Ошибка", JOptionPane.ERROR_MESSAGE);
-        }
+        noteWriter.saveNote(text, title).whenComplete((path, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        statusLabel.setText("Ошибка сохранения");
+                        JOptionPane.showMessageDialog(this,
+                                "Ошибка сохранения: " + cause.getMessage(),
+                                "Ошибка", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+
+                    // Автосохранение больше не нужно, только если текст не менялся,
+                    // пока шла запись; иначе в нём остаётся новая версия
+                    if (textArea.getText().trim().equals(text)) {
+                        autosaveTimer.stop();
+                        noteWriter.clearAutosave();
+                    }
+                    statusLabel.setText("Заметка сохранена: " + savedTitle + ".txt");
+
+                    int choice = JOptionPane.showConfirmDialog(this,
+                            "Заметка сохранена в UTF-8!\nОчистить поле?",
+                            "Сохранено", JOptionPane.YES_NO_OPTION);
+
+                    if (choice == JOptionPane.YES_OPTION) {
+                        textArea.setText("");
+                        saveButton.setEnabled(false);
+                    }
+                }));
     }
 
     public static void main(String[] args) {